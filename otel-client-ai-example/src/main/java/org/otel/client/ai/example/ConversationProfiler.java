@@ -0,0 +1,179 @@
+package org.otel.client.ai.example;
+
+import com.azure.core.util.Context;
+import com.azure.core.util.TelemetryAttributes;
+import com.azure.core.util.metrics.DoubleHistogram;
+import com.azure.core.util.metrics.Meter;
+import com.azure.core.util.metrics.MeterProvider;
+import com.azure.core.util.tracing.Tracer;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentSelector;
+import io.opentelemetry.sdk.metrics.SdkMeterProviderBuilder;
+import io.opentelemetry.sdk.metrics.View;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the calling thread's CPU time and allocated bytes ({@link ThreadMXBean} deltas) for a span or a step within
+ * it, as span attributes or events and as histograms.
+ */
+final class ConversationProfiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversationProfiler.class);
+    private static final String METER_NAME = "demo-app";
+    private static final String PROFILING_PROPERTY = "otel.example.profiling";
+    private static final String PROFILING_ENV = "OTEL_EXAMPLE_PROFILING";
+    private static final Sample DISABLED_SAMPLE = new Sample(0, 0);
+
+    private final Tracer tracer;
+    private final ThreadMXBean threadMXBean;
+    private final com.sun.management.ThreadMXBean allocationMXBean;
+    private final Meter meter;
+    private final DoubleHistogram cpuTime;
+    private final DoubleHistogram allocated;
+    private final Map<String, TelemetryAttributes> stepAttributes = new ConcurrentHashMap<>();
+    private final boolean enabled;
+
+    ConversationProfiler(Tracer tracer) {
+        this.tracer = tracer;
+        this.threadMXBean = ManagementFactory.getThreadMXBean();
+        this.allocationMXBean = threadMXBean instanceof com.sun.management.ThreadMXBean
+                ? (com.sun.management.ThreadMXBean) threadMXBean
+                : null;
+        final String requestedBy = profilingRequestedBy();
+        this.enabled = requestedBy != null && checkSupported(threadMXBean, allocationMXBean, requestedBy);
+        if (enabled) {
+            enableThreadCounters(threadMXBean, allocationMXBean);
+        }
+        this.meter = MeterProvider.getDefaultProvider().createMeter(METER_NAME, "1.0", null);
+        this.cpuTime = meter.createDoubleHistogram("app.profile.cpu_time", "Thread CPU time spent in a step", "s");
+        this.allocated = meter.createDoubleHistogram("app.profile.allocated", "Bytes allocated by the thread in a step", "By");
+    }
+
+    /**
+     * Uses exponential buckets for the profiler's histograms only; the default explicit buckets (0..10000) can't
+     * resolve CPU seconds or allocated bytes, and other histograms keep their own bucket advice.
+     */
+    static SdkMeterProviderBuilder registerViews(SdkMeterProviderBuilder builder) {
+        return builder.registerView(
+                InstrumentSelector.builder().setMeterName(METER_NAME).setName("app.profile.*").build(),
+                View.builder().setAggregation(Aggregation.base2ExponentialBucketHistogram()).build());
+    }
+
+    /**
+     * Captures the calling thread's CPU time and allocated bytes, to be passed to {@link #endSpan} or {@link #endStep}
+     * on the same thread.
+     *
+     * @return the starting counters, or a placeholder when profiling is disabled.
+     */
+    Sample start() {
+        if (!enabled) {
+            return DISABLED_SAMPLE;
+        }
+        return new Sample(threadMXBean.getCurrentThreadCpuTime(), currentThreadAllocatedBytes());
+    }
+
+    /**
+     * Records the resources consumed since {@code sample} was taken as attributes of {@code span}, which is the span
+     * of the step itself (e.g. 'local_get_weather'). Called right before each 'tracer.end' of the span; only the first
+     * call for a {@code sample} records, and failures are logged rather than thrown so the span still ends.
+     */
+    void endSpan(Sample sample, String step, Context span) {
+        if (!enabled || sample.ended) {
+            return;
+        }
+        sample.ended = true;
+        try {
+            final long cpuNanos = threadMXBean.getCurrentThreadCpuTime() - sample.cpuNanos;
+            final long allocatedBytes = currentThreadAllocatedBytes() - sample.allocatedBytes;
+            tracer.setAttribute("profile.cpu_time_ns", cpuNanos, span);
+            tracer.setAttribute("profile.allocated_bytes", allocatedBytes, span);
+            record(step, cpuNanos, allocatedBytes, span);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to record profile for '{}'.", step, e);
+        }
+    }
+
+    /**
+     * Records the resources consumed since {@code sample} was taken as an event on {@code span}, which encloses the
+     * step (e.g. 'chunks_append' within the conversation span). Events are used so that repeated steps don't
+     * overwrite each other.
+     */
+    void endStep(Sample sample, String step, Context span) {
+        if (!enabled) {
+            return;
+        }
+        final long cpuNanos = threadMXBean.getCurrentThreadCpuTime() - sample.cpuNanos;
+        final long allocatedBytes = currentThreadAllocatedBytes() - sample.allocatedBytes;
+        final Map<String, Object> eventAttributes = new HashMap<>(2);
+        eventAttributes.put("profile.cpu_time_ns", cpuNanos);
+        eventAttributes.put("profile.allocated_bytes", allocatedBytes);
+        tracer.addEvent("profile." + step, eventAttributes, null, span);
+        record(step, cpuNanos, allocatedBytes, span);
+    }
+
+    private void record(String step, long cpuNanos, long allocatedBytes, Context span) {
+        final TelemetryAttributes attributes = stepAttributes.computeIfAbsent(step,
+                s -> meter.createAttributes(Collections.singletonMap("step", s)));
+        cpuTime.record(cpuNanos / 1_000_000_000.0, attributes, span);
+        allocated.record(allocatedBytes, attributes, span);
+    }
+
+    private long currentThreadAllocatedBytes() {
+        return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @return the name of the setting that turned profiling on, or null if profiling was not requested.
+     */
+    private static String profilingRequestedBy() {
+        final String property = System.getProperty(PROFILING_PROPERTY);
+        if (property != null) {
+            return Boolean.parseBoolean(property) ? PROFILING_PROPERTY : null;
+        }
+        return Boolean.parseBoolean(System.getenv(PROFILING_ENV)) ? PROFILING_ENV : null;
+    }
+
+    private static boolean checkSupported(ThreadMXBean threadMXBean, com.sun.management.ThreadMXBean allocationMXBean,
+        String requestedBy) {
+        if (threadMXBean.isCurrentThreadCpuTimeSupported() && allocationMXBean != null
+                && allocationMXBean.isThreadAllocatedMemorySupported()) {
+            return true;
+        }
+        LOGGER.warn("Profiling was requested via '{}', but this JVM does not support thread CPU time and allocated"
+                + " memory measurement; profiling is disabled.", requestedBy);
+        return false;
+    }
+
+    /**
+     * Turns on the JVM-wide thread CPU time and allocated memory measurement, if not already on.
+     */
+    private static void enableThreadCounters(ThreadMXBean threadMXBean, com.sun.management.ThreadMXBean allocationMXBean) {
+        if (!threadMXBean.isThreadCpuTimeEnabled()) {
+            threadMXBean.setThreadCpuTimeEnabled(true);
+        }
+        if (!allocationMXBean.isThreadAllocatedMemoryEnabled()) {
+            allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Thread counters captured at the start of a step.
+     */
+    static final class Sample {
+        private final long cpuNanos;
+        private final long allocatedBytes;
+        private boolean ended;
+
+        private Sample(long cpuNanos, long allocatedBytes) {
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+}
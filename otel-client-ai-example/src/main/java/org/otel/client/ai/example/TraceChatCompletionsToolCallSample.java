@@ -26,6 +26,12 @@ import com.azure.json.JsonReader;
 import com.azure.json.JsonSerializable;
 import com.azure.json.JsonToken;
 import com.azure.json.JsonWriter;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.Classes;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.Cpu;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.GarbageCollector;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.MemoryPools;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.Threads;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
 import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdkBuilder;
 
@@ -54,12 +60,14 @@ public class TraceChatCompletionsToolCallSample {
     public static void main(final String[] args) {
         final ChatCompletionsClient client = createChatCompletionClient();
         final Tracer tracer = createTracer();
+        final ConversationProfiler profiler = new ConversationProfiler(tracer);
         final Context span = tracer.start(APP_NAMESPACE, new StartSpanOptions(CLIENT), Context.NONE);
+        final ConversationProfiler.Sample conversationSample = profiler.start();
         try(AutoCloseable scope = tracer.makeSpanCurrent(span)) {
             final List<ChatRequestMessage> messages = new ArrayList<>();
             messages.add(new ChatRequestSystemMessage("You are a helpful assistant."));
             messages.add(new ChatRequestUserMessage("What is the weather and temperature in Seattle?"));
-            final GetWeatherTemperatureFunctions functions = new GetWeatherTemperatureFunctions(tracer);
+            final GetWeatherTemperatureFunctions functions = new GetWeatherTemperatureFunctions(tracer, profiler);
 
             ChatCompletions response = client.complete(new ChatCompletionsOptions(messages).setTools(functions.toolDefinitions()));
             ChatChoice choice = response.getChoice();
@@ -76,8 +84,10 @@ public class TraceChatCompletionsToolCallSample {
             }
 
             System.out.println("Model response: " + modelResponseContent(response));
+            profiler.endSpan(conversationSample, "conversation", span);
             tracer.end(null, null, span);
         } catch (Exception e) {
+            profiler.endSpan(conversationSample, "conversation", span);
             tracer.end(null, e, span);
         }
     }
@@ -96,15 +106,23 @@ public class TraceChatCompletionsToolCallSample {
         // For production telemetry use cases, see Azure Monitor, https://learn.microsoft.com/java/api/overview/azure/monitor-opentelemetry-exporter-readme
         //
         final AutoConfiguredOpenTelemetrySdkBuilder sdkBuilder = AutoConfiguredOpenTelemetrySdk.builder();
-        sdkBuilder
+        final OpenTelemetrySdk sdk = sdkBuilder
                 .addPropertiesSupplier(() -> {
                     final Map<String, String> properties = new HashMap<>();
                     properties.put("otel.exporter.otlp.endpoint", "http://localhost:4317"); // The OTLP/gRPC endpoint.
                     return properties;
                 })
+                .addMeterProviderCustomizer((builder, config) -> ConversationProfiler.registerViews(builder))
                 .setResultAsGlobal()
                 .build()
                 .getOpenTelemetrySdk();
+        // JVM-wide runtime metrics (CPU, GC, memory pools, threads, classes); per-conversation numbers come from
+        // ConversationProfiler.
+        Classes.registerObservers(sdk);
+        Cpu.registerObservers(sdk);
+        GarbageCollector.registerObservers(sdk);
+        MemoryPools.registerObservers(sdk);
+        Threads.registerObservers(sdk);
     }
 
     private static ChatCompletionsClient createChatCompletionClient() {
@@ -142,12 +160,14 @@ public class TraceChatCompletionsToolCallSample {
      */
     private static final class GetWeatherTemperatureFunctions {
         private final Tracer tracer;
+        private final ConversationProfiler profiler;
         private final WeatherFunc weatherFunc;
         private final TemperatureFunc temperatureFunc;
         private final List<ChatCompletionsToolDefinition> toolDefinitions = new ArrayList<>(2);
 
-        public GetWeatherTemperatureFunctions(Tracer tracer) {
+        public GetWeatherTemperatureFunctions(Tracer tracer, ConversationProfiler profiler) {
             this.tracer = tracer;
+            this.profiler = profiler;
             this.weatherFunc = new WeatherFunc();
             this.temperatureFunc = new TemperatureFunc();
             this.toolDefinitions.add(new ChatCompletionsToolDefinition(weatherFunc.getDefinition()));
@@ -159,11 +179,11 @@ public class TraceChatCompletionsToolCallSample {
         }
 
         public ChatRequestToolMessage invoke(ChatCompletionsToolCall toolCall, Context span) {
-            final Optional<ChatRequestToolMessage> wResponse = weatherFunc.tryInvoke(toolCall, tracer, span);
+            final Optional<ChatRequestToolMessage> wResponse = weatherFunc.tryInvoke(toolCall, tracer, profiler, span);
             if (wResponse.isPresent()) {
                 return wResponse.get();
             }
-            final Optional<ChatRequestToolMessage> rwResponse = temperatureFunc.tryInvoke(toolCall, tracer, span);
+            final Optional<ChatRequestToolMessage> rwResponse = temperatureFunc.tryInvoke(toolCall, tracer, profiler, span);
             if (rwResponse.isPresent()) {
                 return rwResponse.get();
             }
@@ -177,13 +197,17 @@ public class TraceChatCompletionsToolCallSample {
                         .setParameters(BinaryData.fromBytes(parameters()));
             }
 
-            private Optional<ChatRequestToolMessage> tryInvoke(ChatCompletionsToolCall toolCall, Tracer tracer, Context span) {
+            private Optional<ChatRequestToolMessage> tryInvoke(ChatCompletionsToolCall toolCall, Tracer tracer,
+                ConversationProfiler profiler, Context span) {
                 final FunctionCall function = toolCall.getFunction();
                 final String functionName = function.getName();
                 if (functionName.equalsIgnoreCase("get_weather")) {
                     final Context localSpan = tracer.start("local_get_weather", span);
+                    final ConversationProfiler.Sample toolSample = profiler.start();
                     try (AutoCloseable ignored = tracer.makeSpanCurrent(localSpan)) {
+                        final ConversationProfiler.Sample parseSample = profiler.start();
                         final FunctionArguments functionArguments = BinaryData.fromString(function.getArguments()).toObject(FunctionArguments.class);
+                        profiler.endStep(parseSample, "tool_arguments_parse", localSpan);
                         tracer.setAttribute("parameter.city", functionArguments.getCity(), localSpan);
                         // sleep();
                         final String functionResponse;
@@ -194,9 +218,11 @@ public class TraceChatCompletionsToolCallSample {
                         } else {
                             functionResponse = "Unavailable";
                         }
+                        profiler.endSpan(toolSample, "local_get_weather", localSpan);
                         tracer.end(null, null, localSpan);
                         return Optional.of(new ChatRequestToolMessage(functionResponse, toolCall.getId()));
                     } catch (Exception ex) {
+                        profiler.endSpan(toolSample, "local_get_weather", localSpan);
                         tracer.end("local_get_weather failed.", ex, localSpan);
                     }
                 }
@@ -241,13 +267,17 @@ public class TraceChatCompletionsToolCallSample {
                         .setParameters(BinaryData.fromBytes(parameters()));
             }
 
-            private Optional<ChatRequestToolMessage> tryInvoke(ChatCompletionsToolCall toolCall, Tracer tracer, Context span) {
+            private Optional<ChatRequestToolMessage> tryInvoke(ChatCompletionsToolCall toolCall, Tracer tracer,
+                ConversationProfiler profiler, Context span) {
                 final FunctionCall function = toolCall.getFunction();
                 final String functionName = function.getName();
                 if (functionName.equalsIgnoreCase("get_temperature")) {
                     final Context localSpan = tracer.start("local_get_temperature", span);
+                    final ConversationProfiler.Sample toolSample = profiler.start();
                     try (AutoCloseable ignored = tracer.makeSpanCurrent(localSpan)) {
+                        final ConversationProfiler.Sample parseSample = profiler.start();
                         final FunctionArguments functionArguments = BinaryData.fromString(function.getArguments()).toObject(FunctionArguments.class);
+                        profiler.endStep(parseSample, "tool_arguments_parse", localSpan);
                         tracer.setAttribute("parameter.city", functionArguments.getCity(), localSpan);
                         // sleep();
                         final String functionResponse;
@@ -258,9 +288,11 @@ public class TraceChatCompletionsToolCallSample {
                         } else {
                             functionResponse = "Unavailable";
                         }
+                        profiler.endSpan(toolSample, "local_get_temperature", localSpan);
                         tracer.end(null, null, localSpan);
                         return Optional.of(new ChatRequestToolMessage(functionResponse, toolCall.getId()));
                     } catch (Exception ex) {
+                        profiler.endSpan(toolSample, "local_get_temperature", localSpan);
                         tracer.end("local_get_temperature failed.", ex, localSpan);
                     }
                 }
@@ -28,6 +28,12 @@ import com.azure.json.JsonReader;
 import com.azure.json.JsonSerializable;
 import com.azure.json.JsonToken;
 import com.azure.json.JsonWriter;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.Classes;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.Cpu;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.GarbageCollector;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.MemoryPools;
+import io.opentelemetry.instrumentation.runtimemetrics.java8.Threads;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
 import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdk;
 import io.opentelemetry.sdk.autoconfigure.AutoConfiguredOpenTelemetrySdkBuilder;
 
@@ -56,15 +62,19 @@ public class TraceStreamingChatCompletionsToolCallSample {
     public static void main(final String[] args) {
         final ChatCompletionsClient client = createChatCompletionClient();
         final Tracer tracer = createTracer();
+        final ConversationProfiler profiler = new ConversationProfiler(tracer);
         final Context span = tracer.start(APP_NAMESPACE, new StartSpanOptions(CLIENT), Context.NONE);
+        final ConversationProfiler.Sample conversationSample = profiler.start();
         try(AutoCloseable scope = tracer.makeSpanCurrent(span)) {
             final List<ChatRequestMessage> messages = new ArrayList<>();
             messages.add(new ChatRequestSystemMessage("You an assistant that helps users find flight information."));
             messages.add(new ChatRequestUserMessage("What is the next flights from Seattle to Miami?"));
-            final GetFlightInfoFunction function = new GetFlightInfoFunction(tracer);
+            final GetFlightInfoFunction function = new GetFlightInfoFunction(tracer, profiler);
 
             final IterableStream<StreamingChatCompletionsUpdate> toolCallChunks = client.completeStream(new ChatCompletionsOptions(messages).setTools(function.toolDefinitions()));
+            final ConversationProfiler.Sample toolCallMergeSample = profiler.start();
             final ChunksMerged toolCallChunksMerged = ChunksMerged.create(toolCallChunks);
+            profiler.endStep(toolCallMergeSample, "chunks_append", span);
             final ChatCompletionsToolCall toolCall = toolCallChunksMerged.asTooCall();
             messages.add(toAssistantMessage(toolCall));
 
@@ -72,10 +82,14 @@ public class TraceStreamingChatCompletionsToolCallSample {
             messages.add(toolMessage);
 
             final IterableStream<StreamingChatCompletionsUpdate> modelResponseChunks = client.completeStream(new ChatCompletionsOptions(messages).setTools(function.toolDefinitions()));
+            final ConversationProfiler.Sample modelResponseMergeSample = profiler.start();
             final ChunksMerged modelResponseChunksMerged = ChunksMerged.create(modelResponseChunks);
+            profiler.endStep(modelResponseMergeSample, "chunks_append", span);
             System.out.println("Model response: " + modelResponseChunksMerged.content);
+            profiler.endSpan(conversationSample, "conversation", span);
             tracer.end(null, null, span);
         } catch (Exception e) {
+            profiler.endSpan(conversationSample, "conversation", span);
             tracer.end(null, e, span);
         }
     }
@@ -94,15 +108,23 @@ public class TraceStreamingChatCompletionsToolCallSample {
         // For production telemetry use cases, see Azure Monitor, https://learn.microsoft.com/java/api/overview/azure/monitor-opentelemetry-exporter-readme
         //
         final AutoConfiguredOpenTelemetrySdkBuilder sdkBuilder = AutoConfiguredOpenTelemetrySdk.builder();
-        sdkBuilder
+        final OpenTelemetrySdk sdk = sdkBuilder
                 .addPropertiesSupplier(() -> {
                     final Map<String, String> properties = new HashMap<>();
                     properties.put("otel.exporter.otlp.endpoint", "http://localhost:4317");
                     return properties;
                 })
+                .addMeterProviderCustomizer((builder, config) -> ConversationProfiler.registerViews(builder))
                 .setResultAsGlobal()
                 .build()
                 .getOpenTelemetrySdk();
+        // JVM-wide runtime metrics (CPU, GC, memory pools, threads, classes); per-conversation numbers come from
+        // ConversationProfiler.
+        Classes.registerObservers(sdk);
+        Cpu.registerObservers(sdk);
+        GarbageCollector.registerObservers(sdk);
+        MemoryPools.registerObservers(sdk);
+        Threads.registerObservers(sdk);
     }
 
     private static ChatCompletionsClient createChatCompletionClient() {
@@ -186,11 +208,13 @@ public class TraceStreamingChatCompletionsToolCallSample {
      */
     private static class GetFlightInfoFunction {
         private final Tracer tracer;
+        private final ConversationProfiler profiler;
         private final FlightInfoFunc flightInfoFunc;
         private final List<ChatCompletionsToolDefinition> toolDefinitions = new ArrayList<>(1);
 
-        public GetFlightInfoFunction(Tracer tracer) {
+        public GetFlightInfoFunction(Tracer tracer, ConversationProfiler profiler) {
             this.tracer = tracer;
+            this.profiler = profiler;
             this.flightInfoFunc = new FlightInfoFunc();
             this.toolDefinitions.add(new ChatCompletionsToolDefinition(flightInfoFunc.getDefinition()));
         }
@@ -200,7 +224,7 @@ public class TraceStreamingChatCompletionsToolCallSample {
         }
 
         public ChatRequestToolMessage invoke(ChatCompletionsToolCall toolCall, Context span) {
-            final Optional<ChatRequestToolMessage> fResponse = flightInfoFunc.tryInvoke(toolCall, tracer, span);
+            final Optional<ChatRequestToolMessage> fResponse = flightInfoFunc.tryInvoke(toolCall, tracer, profiler, span);
             if (fResponse.isPresent()) {
                 return fResponse.get();
             }
@@ -214,15 +238,19 @@ public class TraceStreamingChatCompletionsToolCallSample {
                         .setParameters(BinaryData.fromBytes(parameters()));
             }
 
-            private Optional<ChatRequestToolMessage> tryInvoke(ChatCompletionsToolCall toolCall, Tracer tracer, Context span) {
+            private Optional<ChatRequestToolMessage> tryInvoke(ChatCompletionsToolCall toolCall, Tracer tracer,
+                ConversationProfiler profiler, Context span) {
                 final String toolCallId = toolCall.getId();
                 final String funcName = toolCall.getFunction().getName();
                 final String funcArguments = toolCall.getFunction().getArguments();
 
                 if (funcName.equalsIgnoreCase("get_flight_info")) {
                     final Context localSpan = tracer.start("local_get_flight_info", span);
+                    final ConversationProfiler.Sample toolSample = profiler.start();
                     try (AutoCloseable ignored = tracer.makeSpanCurrent(localSpan)) {
+                        final ConversationProfiler.Sample parseSample = profiler.start();
                         final FunctionArguments functionArguments = BinaryData.fromString(funcArguments).toObject(FunctionArguments.class);
+                        profiler.endStep(parseSample, "tool_arguments_parse", localSpan);
                         tracer.setAttribute("parameter.origin_city", functionArguments.getOriginCity(), localSpan);
                         tracer.setAttribute("parameter.destination_city", functionArguments.getDestinationCity(), localSpan);
                         // sleep();
@@ -232,9 +260,11 @@ public class TraceStreamingChatCompletionsToolCallSample {
                         } else {
                             functionResponse = "{\"error\": \"No flights found between the cities\"}";
                         }
+                        profiler.endSpan(toolSample, "local_get_flight_info", localSpan);
                         tracer.end(null, null, localSpan);
                         return Optional.of(new ChatRequestToolMessage(functionResponse, toolCallId));
                     } catch (Exception ex) {
+                        profiler.endSpan(toolSample, "local_get_flight_info", localSpan);
                         tracer.end("local_get_flight_info failed.", ex, localSpan);
                     }
                 }